@@ -1,3 +1,5 @@
+import java.lang.management.*;
+import java.lang.ref.Reference;
 import java.nio.file.*;
 import java.util.*;
 
@@ -13,24 +15,132 @@ public class MiniLang {
 
     /**
      * Main entry point.
+     * Usage: MiniLang [--no-tier] [--tier-threshold=N] [--tier-max-deopts=N] [--log-tiers]
+     *                 [--flat | --ast-stats] file
      */
     public static void main(String[] args) throws Exception {
-        if (args.length != 1) {
+        TierOptions tiers = new TierOptions();
+        boolean flat = false, astStats = false;
+        String tierFlag = null;
+        String file = null;
+        for (String a : args) {
+            if (a.equals("--flat")) flat = true;
+            else if (a.equals("--ast-stats")) astStats = true;
+            else if (a.equals("--no-tier")) { tiers.enabled = false; tierFlag = a; }
+            else if (a.equals("--log-tiers")) { tiers.log = true; tierFlag = a; }
+            else if (a.startsWith("--tier-threshold=")) { tiers.threshold = count(a, "--tier-threshold="); tierFlag = a; }
+            else if (a.startsWith("--tier-max-deopts=")) { tiers.maxDeopts = count(a, "--tier-max-deopts="); tierFlag = a; }
+            else if (a.startsWith("--") || file != null) {
+                System.err.println("Unknown argument " + a);
+                System.exit(1);
+            }
+            else file = a;
+        }
+
+        // The flat executor and the AST report never run the tiered interpreter
+        if (flat && astStats) {
+            System.err.println("Incompatible arguments --flat and --ast-stats");
+            System.exit(1);
+        }
+        if ((flat || astStats) && tierFlag != null) {
+            System.err.println("Incompatible arguments " + (flat ? "--flat" : "--ast-stats") + " and " + tierFlag);
+            System.exit(1);
+        }
+        if (file == null) {
             System.exit(1);
         }
 
         // Load the entire source file as a single string
-        String source = Files.readString(Path.of(args[0]));
+        String source = Files.readString(Path.of(file));
 
         // Convert raw characters into a typed token stream
         List<Token> tokens = new Lexer(source).lex();
 
+        if (astStats) {
+            reportAstStats(tokens);
+            return;
+        }
+
+        // Flat mode parses straight into index arenas and walks them without building node objects
+        if (flat) {
+            new FlatInterpreter(FlatAst.parse(tokens)).execute();
+            return;
+        }
+
         // Transform tokens into an abstract syntax tree (AST)
-        Parser parser = new Parser(tokens);
+        Parser<Stmt, Expr> parser = new Parser<>(tokens, new ObjectAstBuilder());
         List<Stmt> program = parser.parse();
 
         // Evaluate the Abstract Syntax Tree (AST) using a scoped runtime environment
-        Interpreter interp = new Interpreter();
+        Interpreter interp = new Interpreter(tiers);
         interp.execute(program);
     }
+
+    /** Reads the non-negative integer after prefix, exiting like any other bad argument otherwise. */
+    private static int count(String a, String prefix){
+        try {
+            int v = Integer.parseInt(a.substring(prefix.length()));
+            if (v >= 0) return v;
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        System.err.println("Invalid argument " + a);
+        System.exit(1);
+        return 0;
+    }
+
+    /**
+     * Parses the same tokens into both AST representations and prints parse time and retained heap.
+     * Each side is parsed once beforehand so both are measured with a warmed-up JIT.
+     */
+    private static void reportAstStats(List<Token> tokens){
+        new Parser<>(tokens, new ObjectAstBuilder()).parse();
+        FlatAst.parse(tokens);
+        peakHeap();
+
+        long base = usedHeap();
+        long t0 = System.nanoTime();
+        List<Stmt> objects = new Parser<>(tokens, new ObjectAstBuilder()).parse();
+        long objectNanos = System.nanoTime() - t0;
+        long objectPeak = peakHeap() - base;
+        long objectBytes = usedHeap() - base;
+        Reference.reachabilityFence(objects);
+        objects = null;
+
+        base = usedHeap();
+        t0 = System.nanoTime();
+        FlatAst arena = FlatAst.parse(tokens);
+        long flatNanos = System.nanoTime() - t0;
+        long flatPeak = peakHeap() - base;
+        long flatBytes = usedHeap() - base;
+        Reference.reachabilityFence(arena);
+
+        System.out.printf("%-8s %12s %12s %12s%n", "ast", "parse ms", "heap KiB", "peak KiB");
+        System.out.printf("%-8s %12.1f %12d %12d%n", "object", objectNanos / 1e6, objectBytes / 1024, objectPeak / 1024);
+        System.out.printf("%-8s %12.1f %12d %12d%n", "flat", flatNanos / 1e6, flatBytes / 1024, flatPeak / 1024);
+        System.out.printf("%d nodes, %d tokens%n", arena.size, tokens.size());
+    }
+
+    /** Live heap after a full collection; also restarts peak tracking for the next peakHeap call. */
+    private static long usedHeap(){
+        Runtime rt = Runtime.getRuntime();
+        for (int k = 0; k < 3; k++) System.gc();
+        long used = rt.totalMemory() - rt.freeMemory();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) pool.resetPeakUsage();
+        return used;
+    }
+
+    /**
+     * Highest occupancy of the heap pools that survive young collections since the last usedHeap call.
+     * Eden is left out: it fills to capacity between collections whatever the program allocates.
+     * It is approximate: pools peak at different moments, garbage may not have been collected yet,
+     * and anything still in eden is missed.
+     */
+    private static long peakHeap(){
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && !pool.getName().contains("Eden")) peak += pool.getPeakUsage().getUsed();
+        }
+        return peak;
+    }
 }
@@ -62,6 +62,32 @@ final class While implements Stmt {
     While(Expr c, Stmt b) { cond = c; body = b; }
 }
 
+/**
+ * Counted loop over the half-open range [from, to) whose iterations may run concurrently.
+ * Each iteration sees its own copy of the loop variable and of every reduction accumulator.
+ */
+final class ParallelFor implements Stmt {
+    final String var;
+    final Expr from;
+    final Expr to;
+    final List<Reduction> reductions;
+    final Stmt body;
+
+    ParallelFor(String n, Expr f, Expr t, List<Reduction> r, Stmt b) {
+        var = n; from = f; to = t; reductions = r; body = b;
+    }
+}
+
+/**
+ * Reduction clause of a parallel loop: combines per-iteration values of an outer variable with op.
+ */
+final class Reduction {
+    final String op;
+    final String name;
+
+    Reduction(String o, String n) { op = o; name = n; }
+}
+
 /**
  * Print side effect for debugging and user output.
  */
@@ -0,0 +1,28 @@
+import java.util.*;
+
+/**
+ * Construction interface the parser drives while recognizing a program.
+ * S and E are whatever the representation uses for statement and expression handles:
+ * node objects for the object AST; FlatAst's builder uses Void and tracks nodes itself.
+ * Callers must build every child before its parent, siblings in source order, and pass each
+ * handle to exactly one later call, so a builder may ignore handles and keep its own stack.
+ * Such a builder checks the kind of every node it takes off its stack and throws
+ * IllegalStateException when the calls break this contract.
+ */
+interface AstBuilder<S, E> {
+    S block(List<S> stmts);
+    S varDecl(String name, E init);
+    S assign(String name, E value);
+    S ifStmt(E cond, S thenB);
+    S ifElse(E cond, S thenB, S elseB);
+    S whileStmt(E cond, S body);
+    S parallelFor(String var, E from, E to, List<Reduction> reductions, S body);
+    S print(List<E> values);
+
+    E intLit(int v);
+    E boolLit(boolean v);
+    E strLit(String v);
+    E variable(String name);
+    E unary(String op, E right);
+    E binary(E left, String op, E right);
+}
@@ -0,0 +1,292 @@
+import java.util.*;
+
+/**
+ * Flat arena encoding of a MiniLang program.
+ * Every node is an index into parallel arrays: kind[n] says what it is and a/b/c hold its operands,
+ * which are child node indices, inline int values, operator codes, or indices into the name and
+ * string pools. Variable-length children (block bodies, print arguments, parallel loop headers)
+ * live as runs in the shared lists array. Compared with the object AST this drops per-node object
+ * headers, child ArrayLists, boxed literal values, and duplicate identifier strings.
+ * A FlatAst is immutable once built; construction goes through the private Builder.
+ *
+ * Node layouts:
+ *   BLOCK     a = list start, b = count
+ *   VAR_DECL  a = name, b = init
+ *   ASSIGN    a = name, b = value
+ *   IF        a = cond, b = then, c = else or -1
+ *   WHILE     a = cond, b = body
+ *   PARALLEL  a = loop variable name, b = body, c = list start of [from, to, n, op1, name1, ...]
+ *   PRINT     a = list start, b = count
+ *   INT       a = value
+ *   BOOL      a = 0 or 1
+ *   STR       a = string pool index
+ *   VARIABLE  a = name
+ *   UNARY     a = operator, b = operand
+ *   BINARY    a = operator, b = left, c = right
+ */
+final class FlatAst {
+
+    static final byte BLOCK = 0, VAR_DECL = 1, ASSIGN = 2, IF = 3, WHILE = 4, PARALLEL = 5, PRINT = 6;
+    static final byte INT = 7, BOOL = 8, STR = 9, VARIABLE = 10, UNARY = 11, BINARY = 12;
+
+    /** Operator codes stored in a for UNARY and BINARY nodes; OPS[code] is the source spelling. */
+    static final int ADD = 0, SUB = 1, MUL = 2, DIV = 3, MOD = 4, LT = 5, LE = 6, GT = 7, GE = 8,
+                     EQ = 9, NE = 10, AND = 11, OR = 12, NOT = 13;
+    static final String[] OPS = { "+", "-", "*", "/", "%", "<", "<=", ">", ">=", "==", "!=", "&&", "||", "!" };
+
+    /** Node arrays; only indices below size are nodes, any entries past it are unused capacity. */
+    final byte[] kind;
+    final int[] a, b, c;
+    final int size;
+
+    final int[] lists;
+    final String[] names;
+    final String[] strings;
+
+    /** Run of top-level statement indices in lists. */
+    final int programStart, programCount;
+
+    /**
+     * Takes over the builder's arrays; entries past size (or past the last run in lists) are unused.
+     * An array is trimmed only when more than a quarter of it is slack, one at a time, so building
+     * never needs a second full copy of the arena alongside the first.
+     */
+    private FlatAst(Builder f, int programStart, int programCount){
+        size = f.size;
+        kind = f.kind.length - size > f.kind.length / 4 ? Arrays.copyOf(f.kind, size) : f.kind;
+        a = trim(f.a, size);
+        b = trim(f.b, size);
+        c = trim(f.c, size);
+        lists = trim(f.lists, f.listSize);
+        names = Arrays.copyOf(f.names, f.nameCount);
+        strings = Arrays.copyOf(f.strings, f.stringCount);
+        this.programStart = programStart;
+        this.programCount = programCount;
+    }
+
+    private static int[] trim(int[] xs, int used){
+        return xs.length - used > xs.length / 4 ? Arrays.copyOf(xs, used) : xs;
+    }
+
+    /** Parses tokens straight into a new arena without materializing the object AST. */
+    static FlatAst parse(List<Token> tokens){
+        Builder f = new Builder();
+        return f.finish(new Parser<>(tokens, f).parse());
+    }
+
+    /** Encodes an object AST program into a new arena. */
+    static FlatAst fromObjects(List<Stmt> program){
+        Builder f = new Builder();
+        return f.finish(ObjectAstBuilder.replay(program, f));
+    }
+
+    /** Decodes the arena back into the object AST, e.g. for tooling that expects Stmt/Expr nodes. */
+    List<Stmt> toObjects(){ return emit(new ObjectAstBuilder()); }
+
+    /** Replays the whole program into another builder in source order. */
+    <S, E> List<S> emit(AstBuilder<S, E> to){
+        List<S> out = new ArrayList<>(programCount);
+        for (int k = 0; k < programCount; k++) out.add(emitStmt(lists[programStart + k], to));
+        return out;
+    }
+
+    <S, E> S emitStmt(int n, AstBuilder<S, E> to){
+        switch (kind[n]) {
+            case BLOCK: {
+                List<S> stmts = new ArrayList<>(b[n]);
+                for (int k = 0; k < b[n]; k++) stmts.add(emitStmt(lists[a[n] + k], to));
+                return to.block(stmts);
+            }
+            case VAR_DECL: return to.varDecl(names[a[n]], emitExpr(b[n], to));
+            case ASSIGN:   return to.assign(names[a[n]], emitExpr(b[n], to));
+            case IF: {
+                if (c[n] < 0) return to.ifStmt(emitExpr(a[n], to), emitStmt(b[n], to));
+                return to.ifElse(emitExpr(a[n], to), emitStmt(b[n], to), emitStmt(c[n], to));
+            }
+            case WHILE:    return to.whileStmt(emitExpr(a[n], to), emitStmt(b[n], to));
+            case PARALLEL: {
+                int h = c[n];
+                List<Reduction> reductions = new ArrayList<>(lists[h + 2]);
+                for (int k = 0; k < lists[h + 2]; k++) {
+                    reductions.add(new Reduction(names[lists[h + 3 + 2 * k]], names[lists[h + 4 + 2 * k]]));
+                }
+                return to.parallelFor(names[a[n]], emitExpr(lists[h], to), emitExpr(lists[h + 1], to),
+                                      reductions, emitStmt(b[n], to));
+            }
+            case PRINT: {
+                List<E> values = new ArrayList<>(b[n]);
+                for (int k = 0; k < b[n]; k++) values.add(emitExpr(lists[a[n] + k], to));
+                return to.print(values);
+            }
+            default: throw new RuntimeException("Node " + n + " is not a statement");
+        }
+    }
+
+    <S, E> E emitExpr(int n, AstBuilder<S, E> to){
+        switch (kind[n]) {
+            case INT:      return to.intLit(a[n]);
+            case BOOL:     return to.boolLit(a[n] != 0);
+            case STR:      return to.strLit(strings[a[n]]);
+            case VARIABLE: return to.variable(names[a[n]]);
+            case UNARY:    return to.unary(OPS[a[n]], emitExpr(b[n], to));
+            case BINARY:   return to.binary(emitExpr(b[n], to), OPS[a[n]], emitExpr(c[n], to));
+            default: throw new RuntimeException("Node " + n + " is not an expression");
+        }
+    }
+
+    /**
+     * Arrays grown by half their length as needed, plus an operand stack of node indices.
+     * Handles are Void: relying on the AstBuilder call-order contract, every method pops its children
+     * off the stack and pushes the new node, so no per-node handle object is ever allocated.
+     * Each pop checks that the node is a statement or expression as the call expects, so a caller
+     * that breaks the contract fails here instead of producing a corrupt arena.
+     */
+    private static final class Builder implements AstBuilder<Void, Void> {
+        byte[] kind = new byte[64];
+        int[] a = new int[64], b = new int[64], c = new int[64];
+        int size = 0;
+
+        int[] lists = new int[64];
+        int listSize = 0;
+
+        String[] names = new String[16];
+        int nameCount = 0;
+        String[] strings = new String[16];
+        int stringCount = 0;
+
+        private final Map<String,Integer> nameIds = new HashMap<>();
+        private final Map<String,Integer> stringIds = new HashMap<>();
+
+        private int[] stack = new int[64];
+        private int sp = 0;
+
+        /** Turns the top-level statements still on the stack into an immutable arena. */
+        FlatAst finish(List<Void> roots){
+            if (sp != roots.size()) throw new IllegalStateException("Builder stack holds " + sp + " nodes, expected " + roots.size());
+            int start = moveToList(roots.size(), true);
+            return new FlatAst(this, start, roots.size());
+        }
+
+        public Void block(List<Void> stmts){ return node(BLOCK, moveToList(stmts.size(), true), stmts.size(), 0); }
+        public Void varDecl(String name, Void init){ return node(VAR_DECL, name(name), popExpr(), 0); }
+        public Void assign(String name, Void value){ return node(ASSIGN, name(name), popExpr(), 0); }
+        public Void print(List<Void> values){ return node(PRINT, moveToList(values.size(), false), values.size(), 0); }
+
+        public Void ifStmt(Void cond, Void thenB){
+            int t = popStmt();
+            return node(IF, popExpr(), t, -1);
+        }
+
+        public Void ifElse(Void cond, Void thenB, Void elseB){
+            int e = popStmt(), t = popStmt();
+            return node(IF, popExpr(), t, e);
+        }
+
+        public Void whileStmt(Void cond, Void body){
+            int bd = popStmt();
+            return node(WHILE, popExpr(), bd, 0);
+        }
+
+        public Void parallelFor(String var, Void from, Void to, List<Reduction> reductions, Void body){
+            int bd = popStmt(), hi = popExpr(), lo = popExpr();
+            int h = listSize;
+            append(lo);
+            append(hi);
+            append(reductions.size());
+            for (Reduction r : reductions) {
+                append(name(r.op));
+                append(name(r.name));
+            }
+            return node(PARALLEL, name(var), bd, h);
+        }
+
+        public Void intLit(int v){ return node(INT, v, 0, 0); }
+        public Void boolLit(boolean v){ return node(BOOL, v ? 1 : 0, 0, 0); }
+        public Void variable(String name){ return node(VARIABLE, name(name), 0, 0); }
+        public Void unary(String op, Void right){ return node(UNARY, opCode(op), popExpr(), 0); }
+
+        public Void binary(Void left, String op, Void right){
+            int r = popExpr();
+            return node(BINARY, opCode(op), popExpr(), r);
+        }
+
+        public Void strLit(String v){
+            Integer id = stringIds.get(v);
+            if (id == null) {
+                if (stringCount == strings.length) strings = Arrays.copyOf(strings, stringCount * 2);
+                id = stringCount;
+                strings[stringCount++] = v;
+                stringIds.put(v, id);
+            }
+            return node(STR, id, 0, 0);
+        }
+
+        /** Appends a node and pushes its index as the handle for the enclosing call. */
+        private Void node(byte k, int x, int y, int z){
+            if (size == kind.length) {
+                // 1.5x rather than 2x: less slack at the end and a lower peak while the arrays are copied
+                int cap = size + (size >> 1);
+                kind = Arrays.copyOf(kind, cap);
+                a = Arrays.copyOf(a, cap);
+                b = Arrays.copyOf(b, cap);
+                c = Arrays.copyOf(c, cap);
+            }
+            kind[size] = k;
+            a[size] = x;
+            b[size] = y;
+            c[size] = z;
+            if (sp == stack.length) stack = Arrays.copyOf(stack, sp * 2);
+            stack[sp++] = size++;
+            return null;
+        }
+
+        private int popStmt(){ return pop(true); }
+        private int popExpr(){ return pop(false); }
+
+        private int pop(boolean stmt){
+            if (sp == 0) throw new IllegalStateException("Builder stack is empty, expected " + (stmt ? "a statement" : "an expression"));
+            int n = stack[--sp];
+            check(n, stmt);
+            return n;
+        }
+
+        /** Moves the top n stack entries, in source order, into a new run of lists. */
+        private int moveToList(int n, boolean stmts){
+            if (n > sp) throw new IllegalStateException("Builder stack holds " + sp + " nodes, expected " + n);
+            int start = listSize;
+            sp -= n;
+            for (int k = 0; k < n; k++) {
+                check(stack[sp + k], stmts);
+                append(stack[sp + k]);
+            }
+            return start;
+        }
+
+        private void check(int n, boolean stmt){
+            if ((kind[n] < INT) != stmt) {
+                throw new IllegalStateException("Node " + n + " is not " + (stmt ? "a statement" : "an expression"));
+            }
+        }
+
+        private void append(int x){
+            if (listSize == lists.length) lists = Arrays.copyOf(lists, listSize + (listSize >> 1));
+            lists[listSize++] = x;
+        }
+
+        private int name(String s){
+            Integer id = nameIds.get(s);
+            if (id != null) return id;
+            if (nameCount == names.length) names = Arrays.copyOf(names, nameCount * 2);
+            names[nameCount] = s;
+            nameIds.put(s, nameCount);
+            return nameCount++;
+        }
+
+        private static int opCode(String op){
+            for (int k = 0; k < OPS.length; k++) {
+                if (OPS[k].equals(op)) return k;
+            }
+            throw new RuntimeException("Unknown operator " + op);
+        }
+    }
+}
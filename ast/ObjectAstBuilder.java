@@ -0,0 +1,66 @@
+import java.util.*;
+
+/**
+ * Builds the heap-object AST from Ast.java.
+ * Also replays an existing object AST into any other builder, which is how it converts to FlatAst.
+ */
+final class ObjectAstBuilder implements AstBuilder<Stmt, Expr> {
+
+    public Stmt block(List<Stmt> stmts){ return new Block(stmts); }
+    public Stmt varDecl(String name, Expr init){ return new VarDecl(name, init); }
+    public Stmt assign(String name, Expr value){ return new Assign(name, value); }
+    public Stmt ifStmt(Expr cond, Stmt thenB){ return new If(cond, thenB, null); }
+    public Stmt ifElse(Expr cond, Stmt thenB, Stmt elseB){ return new If(cond, thenB, elseB); }
+    public Stmt whileStmt(Expr cond, Stmt body){ return new While(cond, body); }
+    public Stmt print(List<Expr> values){ return new Print(values); }
+
+    public Stmt parallelFor(String var, Expr from, Expr to, List<Reduction> reductions, Stmt body){
+        return new ParallelFor(var, from, to, reductions, body);
+    }
+
+    public Expr intLit(int v){ return new Literal(v); }
+    public Expr boolLit(boolean v){ return new Literal(v); }
+    public Expr strLit(String v){ return new Literal(v); }
+    public Expr variable(String name){ return new Variable(name); }
+    public Expr unary(String op, Expr right){ return new Unary(op, right); }
+    public Expr binary(Expr left, String op, Expr right){ return new Binary(left, op, right); }
+
+    /** Emits every statement of program into b, preserving order and structure. */
+    static <S, E> List<S> replay(List<Stmt> program, AstBuilder<S, E> b){
+        List<S> out = new ArrayList<>(program.size());
+        for (Stmt s : program) out.add(stmt(s, b));
+        return out;
+    }
+
+    private static <S, E> S stmt(Stmt s, AstBuilder<S, E> b){
+        if (s instanceof Block bl) return b.block(replay(bl.stmts, b));
+        if (s instanceof VarDecl vd) return b.varDecl(vd.name, expr(vd.init, b));
+        if (s instanceof Assign as) return b.assign(as.name, expr(as.value, b));
+        if (s instanceof If iff) {
+            if (iff.elseB == null) return b.ifStmt(expr(iff.cond, b), stmt(iff.thenB, b));
+            return b.ifElse(expr(iff.cond, b), stmt(iff.thenB, b), stmt(iff.elseB, b));
+        }
+        if (s instanceof While w) return b.whileStmt(expr(w.cond, b), stmt(w.body, b));
+        if (s instanceof ParallelFor pf) {
+            return b.parallelFor(pf.var, expr(pf.from, b), expr(pf.to, b), pf.reductions, stmt(pf.body, b));
+        }
+        if (s instanceof Print p) {
+            List<E> values = new ArrayList<>(p.values.size());
+            for (Expr e : p.values) values.add(expr(e, b));
+            return b.print(values);
+        }
+        throw new RuntimeException("Unknown statement " + s.getClass());
+    }
+
+    private static <S, E> E expr(Expr e, AstBuilder<S, E> b){
+        if (e instanceof Literal l) {
+            if (l.value instanceof Integer i) return b.intLit(i);
+            if (l.value instanceof Boolean bo) return b.boolLit(bo);
+            return b.strLit((String) l.value);
+        }
+        if (e instanceof Variable v) return b.variable(v.name);
+        if (e instanceof Unary u) return b.unary(u.op, expr(u.right, b));
+        if (e instanceof Binary bi) return b.binary(expr(bi.left, b), bi.op, expr(bi.right, b));
+        throw new RuntimeException("Unknown expr " + e.getClass());
+    }
+}
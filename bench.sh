@@ -0,0 +1,22 @@
+#!/usr/bin/env bash
+set -e
+
+# Generates a large straight-line program and compares both AST representations on it
+STATEMENTS=${1:-200000}
+PROGRAM=${2:-out/generated.ml}
+
+mkdir -p "$(dirname "$PROGRAM")"
+awk -v n="$STATEMENTS" 'BEGIN {
+  print "{"
+  print "  var acc = 0;"
+  for (i = 0; i < n; i++) {
+    printf "  var v%d = (acc * %d + %d) %% 97;\n", i % 1000, i % 13, i
+    printf "  if (v%d < 50 && !(acc == %d)) { acc = acc + v%d; } else { acc = acc - 1; }\n", i % 1000, i, i % 1000
+  }
+  print "  print(acc);"
+  print "}"
+}' > "$PROGRAM"
+
+echo "Comparing AST representations on $PROGRAM ($STATEMENTS iterations of generated code)..."
+# A small young generation makes the parse trigger collections, so the peak column sees the tenured heap grow
+java ${JAVA_OPTS:--Xmx4g -Xmn32m} -cp out MiniLang --ast-stats "$PROGRAM"
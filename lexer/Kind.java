@@ -41,6 +41,9 @@ enum Kind {
     ELSE,   
     WHILE,  
     PRINT,  
+    PARALLEL,
+    FOR,
+    REDUCE,
     STRING,
 
     // Sentinel marking end of input
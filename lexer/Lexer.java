@@ -14,6 +14,7 @@ final class Lexer {
     private final Map<String,Kind> keywords = Map.of(
         "var", Kind.VAR, "if", Kind.IF, "else", Kind.ELSE,
         "while", Kind.WHILE, "print", Kind.PRINT,
+        "parallel", Kind.PARALLEL, "for", Kind.FOR, "reduce", Kind.REDUCE,
         "true", Kind.TRUE, "false", Kind.FALSE
     );
 
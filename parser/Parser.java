@@ -2,32 +2,48 @@ import java.util.*;
 
 /**
  * Recursive-descent parser for MiniLang.
- * Consumes a token stream and produces an AST:
+ * Consumes a token stream and produces an AST through an AstBuilder, so the same grammar
+ *   feeds both the object AST and the flat arena encoding.
  * Implements operator precedence by factoring expression rules
  *   from low precedence (or) down to primaries.
  */
-final class Parser {
+final class Parser<S, E> {
     private final List<Token> t;  
     private int i = 0;           
-    Parser(List<Token> tokens){ this.t = tokens; }
+
+    /** Reduction operators accepted in a parallel loop's reduce clause. */
+    private static final Set<String> REDUCTIONS = Set.of("sum", "min", "max");
+
+    /**
+     * Names declared inside the parallel loop body being parsed, one set per nested scope.
+     * Only populated while parallelBase >= 0; scopes below parallelBase belong to enclosing loops.
+     */
+    private final List<Set<String>> scopes = new ArrayList<>();
+    private int parallelBase = -1;
+
+    private final AstBuilder<S, E> ast;
+
+    Parser(List<Token> tokens, AstBuilder<S, E> builder){ this.t = tokens; this.ast = builder; }
 
     /**
      * Entry point for parsing a complete program.
      */
-    List<Stmt> parse(){
-        List<Stmt> out = new ArrayList<>();
+    List<S> parse(){
+        List<S> out = new ArrayList<>();
         while(!at(Kind.EOF)){
             out.add(statement());
         }
         return out;
     }
 
-    private Stmt statement(){
+    private S statement(){
         if (match(Kind.LBRACE)) {
-            List<Stmt> stmts = new ArrayList<>();
+            List<S> stmts = new ArrayList<>();
+            if (parallelBase >= 0) scopes.add(new HashSet<>());
             while(!at(Kind.RBRACE)) stmts.add(statement());
             expect(Kind.RBRACE, "Expected }");
-            return new Block(stmts);
+            if (parallelBase >= 0) scopes.remove(scopes.size() - 1);
+            return ast.block(stmts);
         }
 
         if (match(Kind.VAR)) return vardecl();
@@ -38,118 +54,161 @@ final class Parser {
 
         if (match(Kind.PRINT)) return printstmt();
 
+        if (match(Kind.PARALLEL)) return parallelstmt();
+
         
         Token name = expect(Kind.IDENT, "Expected identifier");
+        checkWrite(name);
         expect(Kind.EQ, "Expected =");
-        Expr v = expr();
+        E v = expr();
         expect(Kind.SEMI, "Expected ;");
-        return new Assign(name.lexeme, v);
+        return ast.assign(name.lexeme, v);
     }
 
-    private Stmt vardecl(){
+    private S vardecl(){
         Token name = expect(Kind.IDENT, "Expected identifier");
-        Expr init;
-        if (match(Kind.EQ)) init = expr(); else init = new Literal(0);
+        E init;
+        if (match(Kind.EQ)) init = expr(); else init = ast.intLit(0);
         expect(Kind.SEMI, "Expected ;");
-        return new VarDecl(name.lexeme, init);
+        declare(name.lexeme);
+        return ast.varDecl(name.lexeme, init);
     }
 
-    private Stmt ifstmt(){
+    private S ifstmt(){
         expect(Kind.LPAREN, "Expected (");
-        Expr c = expr();
+        E c = expr();
         expect(Kind.RPAREN, "Expected )");
-        Stmt t0 = statement();
-        Stmt e0 = null;
-        if (match(Kind.ELSE)) e0 = statement();
-        return new If(c, t0, e0);
+        S t0 = branch();
+        if (match(Kind.ELSE)) return ast.ifElse(c, t0, branch());
+        return ast.ifStmt(c, t0);
     }
 
-    private Stmt whilestmt(){
+    private S whilestmt(){
+        expect(Kind.LPAREN, "Expected (");
+        E c = expr();
+        expect(Kind.RPAREN, "Expected )");
+        S b = branch();
+        return ast.whileStmt(c, b);
+    }
+
+    /**
+     * parallel for (IDENT = expr, expr) [reduce op(IDENT) {, op(IDENT)}] stmt
+     * The body may only assign variables it declares itself, the loop variable, or reduction targets.
+     */
+    private S parallelstmt(){
+        expect(Kind.FOR, "Expected for");
         expect(Kind.LPAREN, "Expected (");
-        Expr c = expr();
+        Token var = expect(Kind.IDENT, "Expected identifier");
+        expect(Kind.EQ, "Expected =");
+        E from = expr();
+        expect(Kind.COMMA, "Expected ,");
+        E to = expr();
         expect(Kind.RPAREN, "Expected )");
-        Stmt b = statement();
-        return new While(c, b);
+
+        List<Reduction> reductions = new ArrayList<>();
+        Set<String> own = new HashSet<>();
+        own.add(var.lexeme);
+        if (match(Kind.REDUCE)) {
+            do {
+                Token op = expect(Kind.IDENT, "Expected reduction operator");
+                if (!REDUCTIONS.contains(op.lexeme)) throw new RuntimeException(err("Unknown reduction " + op.lexeme, op));
+                expect(Kind.LPAREN, "Expected (");
+                Token name = expect(Kind.IDENT, "Expected identifier");
+                expect(Kind.RPAREN, "Expected )");
+                // Partial results are folded back into the enclosing scope, which counts as a write there
+                checkWrite(name);
+                if (!own.add(name.lexeme)) throw new RuntimeException(err("Duplicate parallel variable " + name.lexeme, name));
+                reductions.add(new Reduction(op.lexeme, name.lexeme));
+            } while (match(Kind.COMMA));
+        }
+
+        int saved = parallelBase;
+        parallelBase = scopes.size();
+        scopes.add(own);
+        S b = statement();
+        scopes.remove(scopes.size() - 1);
+        parallelBase = saved;
+        return ast.parallelFor(var.lexeme, from, to, reductions, b);
     }
 
-    private Stmt printstmt(){
+    private S printstmt(){
         expect(Kind.LPAREN, "Expected (");
-        List<Expr> args = new ArrayList<>();
+        List<E> args = new ArrayList<>();
         if (!at(Kind.RPAREN)) {
             args.add(expr());
             while (match(Kind.COMMA)) args.add(expr());
         }
         expect(Kind.RPAREN, "Expected )");
         expect(Kind.SEMI, "Expected ;");
-        return new Print(args);
+        return ast.print(args);
     }
 
-    private Expr expr(){ return or(); }
+    private E expr(){ return or(); }
 
-    private Expr or(){
-        Expr e = and();
-        while(match(Kind.OROR)) e = new Binary(e, "||", and());
+    private E or(){
+        E e = and();
+        while(match(Kind.OROR)) e = ast.binary(e, "||", and());
         return e;
     }
 
-    private Expr and(){
-        Expr e = equality();
-        while(match(Kind.ANDAND)) e = new Binary(e, "&&", equality());
+    private E and(){
+        E e = equality();
+        while(match(Kind.ANDAND)) e = ast.binary(e, "&&", equality());
         return e;
     }
 
-    private Expr equality(){
-        Expr e = comparison();
+    private E equality(){
+        E e = comparison();
         while(match(Kind.EQEQ, Kind.BANGEQ)){
             String op = prev().lexeme;
-            e = new Binary(e, op, comparison());
+            e = ast.binary(e, op, comparison());
         }
         return e;
     }
 
-    private Expr comparison(){
-        Expr e = term();
+    private E comparison(){
+        E e = term();
         while(match(Kind.LT, Kind.LE, Kind.GT, Kind.GE)){
             String op = prev().lexeme;
-            e = new Binary(e, op, term());
+            e = ast.binary(e, op, term());
         }
         return e;
     }
 
-    private Expr term(){
-        Expr e = factor();
+    private E term(){
+        E e = factor();
         while(match(Kind.PLUS, Kind.MINUS)){
             String op = prev().lexeme;
-            e = new Binary(e, op, factor());
+            e = ast.binary(e, op, factor());
         }
         return e;
     }
 
-    private Expr factor(){
-        Expr e = unary();
+    private E factor(){
+        E e = unary();
         while(match(Kind.STAR, Kind.SLASH, Kind.PERCENT)){
             String op = prev().lexeme;
-            e = new Binary(e, op, unary());
+            e = ast.binary(e, op, unary());
         }
         return e;
     }
 
-    private Expr unary(){
+    private E unary(){
         if (match(Kind.BANG) || match(Kind.MINUS)){
             String op = prev().lexeme;
-            return new Unary(op, unary()); 
+            return ast.unary(op, unary()); 
         }
         return primary();
     }
 
-    private Expr primary(){
-        if (match(Kind.NUMBER)) return new Literal(Integer.parseInt(prev().lexeme));
-        if (match(Kind.TRUE))   return new Literal(true);
-        if (match(Kind.FALSE))  return new Literal(false);
-        if (match(Kind.IDENT))  return new Variable(prev().lexeme);
-        if (match(Kind.STRING)) return new Literal(prev().lexeme);
+    private E primary(){
+        if (match(Kind.NUMBER)) return ast.intLit(Integer.parseInt(prev().lexeme));
+        if (match(Kind.TRUE))   return ast.boolLit(true);
+        if (match(Kind.FALSE))  return ast.boolLit(false);
+        if (match(Kind.IDENT))  return ast.variable(prev().lexeme);
+        if (match(Kind.STRING)) return ast.strLit(prev().lexeme);
         if (match(Kind.LPAREN)){
-            Expr e = expr();
+            E e = expr();
             expect(Kind.RPAREN, "Expected )");
             return e;
         }
@@ -157,6 +216,31 @@ final class Parser {
         throw new RuntimeException(err("Expected expression", t0));
     }
 
+    /**
+     * Parses the body of an if, else, or while. Inside a parallel loop it gets a throwaway scope:
+     * a bare `var` there may never run, so it must not make later writes to that name look local.
+     */
+    private S branch(){
+        if (parallelBase < 0) return statement();
+        scopes.add(new HashSet<>());
+        S s = statement();
+        scopes.remove(scopes.size() - 1);
+        return s;
+    }
+
+    private void declare(String name){
+        if (parallelBase >= 0) scopes.get(scopes.size() - 1).add(name);
+    }
+
+    /** Rejects assignments that would escape the innermost parallel loop body. */
+    private void checkWrite(Token name){
+        if (parallelBase < 0) return;
+        for (int k = scopes.size() - 1; k >= parallelBase; k--) {
+            if (scopes.get(k).contains(name.lexeme)) return;
+        }
+        throw new RuntimeException(err("Parallel loop writes shared variable " + name.lexeme + " outside a reduction", name));
+    }
+
     private boolean at(Kind k){ return peek().kind == k; }
 
     private boolean match(Kind... kinds){
@@ -23,6 +23,12 @@ final class Environment {
     }
 
 
+    boolean isDefined(String name){
+        if (vals.containsKey(name)) return true;
+        return parent != null && parent.isDefined(name);
+    }
+
+
     Object get(String name){
         if (vals.containsKey(name)) return vals.get(name);
         if (parent != null) return parent.get(name);
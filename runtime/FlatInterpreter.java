@@ -0,0 +1,104 @@
+import java.io.*;
+import java.util.*;
+
+/**
+ * FlatInterpreter
+ * Executes a FlatAst by walking node indices, with the same semantics and error messages as Interpreter.
+ * Parallel loops are decoded to the object AST once per node and handed to Interpreter, which owns the
+ * fork-join machinery. Loops are not tiered here.
+ */
+final class FlatInterpreter {
+
+    private final FlatAst ast;
+    private Environment env = new Environment();
+    private final PrintStream out = System.out;
+
+    /** Object form of each PARALLEL node, decoded on first execution. */
+    private final Map<Integer,Stmt> decoded = new HashMap<>();
+
+    FlatInterpreter(FlatAst ast){ this.ast = ast; }
+
+    void execute(){
+        for (int k = 0; k < ast.programCount; k++) exec(ast.lists[ast.programStart + k]);
+    }
+
+    private void exec(int n){
+        int[] a = ast.a, b = ast.b, c = ast.c;
+        switch (ast.kind[n]) {
+            case FlatAst.BLOCK: {
+                Environment prev = env;
+                env = new Environment(prev);
+                try {
+                    for (int k = 0; k < b[n]; k++) exec(ast.lists[a[n] + k]);
+                } finally {
+                    env = prev;
+                }
+                return;
+            }
+
+            case FlatAst.VAR_DECL:
+                env.define(ast.names[a[n]], eval(b[n]));
+                return;
+
+            case FlatAst.ASSIGN:
+                env.assign(ast.names[a[n]], eval(b[n]));
+                return;
+
+            case FlatAst.IF:
+                if (Operators.asBool(eval(a[n]), "if condition")) exec(b[n]);
+                else if (c[n] >= 0) exec(c[n]);
+                return;
+
+            case FlatAst.WHILE:
+                while (Operators.asBool(eval(a[n]), "while condition")) exec(b[n]);
+                return;
+
+            case FlatAst.PARALLEL: {
+                Stmt pf = decoded.computeIfAbsent(n, k -> ast.emitStmt(k, new ObjectAstBuilder()));
+                new Interpreter(env, out).execute(List.of(pf));
+                return;
+            }
+
+            case FlatAst.PRINT:
+                for (int k = 0; k < b[n]; k++) {
+                    if (k > 0) out.print(" ");
+                    out.print(String.valueOf(eval(ast.lists[a[n] + k])));
+                }
+                out.println();
+                return;
+
+            default:
+                throw new RuntimeException("Unknown statement kind " + ast.kind[n]);
+        }
+    }
+
+    private Object eval(int n){
+        int[] a = ast.a, b = ast.b, c = ast.c;
+        switch (ast.kind[n]) {
+            case FlatAst.INT:      return a[n];
+            case FlatAst.BOOL:     return a[n] != 0;
+            case FlatAst.STR:      return ast.strings[a[n]];
+            case FlatAst.VARIABLE: return env.get(ast.names[a[n]]);
+
+            case FlatAst.UNARY:
+                return Operators.unary(FlatAst.OPS[a[n]], eval(b[n]));
+
+            case FlatAst.BINARY: {
+                int op = a[n];
+                if (op == FlatAst.AND) {
+                    boolean left = Operators.asBool(eval(b[n]), "&& left");
+                    return left && Operators.asBool(eval(c[n]), "&& right");
+                }
+                if (op == FlatAst.OR) {
+                    boolean left = Operators.asBool(eval(b[n]), "|| left");
+                    return left || Operators.asBool(eval(c[n]), "|| right");
+                }
+                Object L = eval(b[n]);
+                return Operators.binary(FlatAst.OPS[op], L, eval(c[n]));
+            }
+
+            default:
+                throw new RuntimeException("Unknown expr kind " + ast.kind[n]);
+        }
+    }
+}
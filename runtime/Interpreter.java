@@ -1,4 +1,6 @@
+import java.io.*;
 import java.util.*;
+import java.util.concurrent.*;
 
 /**
  * Interpreter
@@ -6,7 +8,23 @@ import java.util.*;
  */
 final class Interpreter {
     
-    private Environment env = new Environment();
+    private Environment env;
+
+    /** Destination of print output; parallel iterations write to private buffers. */
+    private final PrintStream out;
+
+    /** Hot-loop profiling and compiled tier; null for parallel workers, which are too short-lived to warm up. */
+    private final Tiering tiers;
+
+    Interpreter(){ this(new TierOptions()); }
+
+    Interpreter(TierOptions opts){
+        this.env = new Environment();
+        this.out = System.out;
+        this.tiers = opts.enabled ? new Tiering(opts, out) : null;
+    }
+
+    Interpreter(Environment env, PrintStream out){ this.env = env; this.out = out; this.tiers = null; }
 
 
     void execute(List<Stmt> stmts){
@@ -42,7 +60,7 @@ final class Interpreter {
 
         
         if (s instanceof If iff) {
-            boolean c = asBool(eval(iff.cond), "if condition");
+            boolean c = Operators.asBool(eval(iff.cond), "if condition");
             if (c) exec(iff.thenB);
             else if (iff.elseB != null) exec(iff.elseB);
             return;
@@ -50,26 +68,158 @@ final class Interpreter {
 
         
         if (s instanceof While w) {
-            while (asBool(eval(w.cond), "while condition")) {
+            Tiering.Profile p = tiers == null ? null : tiers.profile(w);
+            if (p != null && p.code != null && tiers.enter(p, w, env, false)) return;
+            while (Operators.asBool(eval(w.cond), "while condition")) {
                 exec(w.body);
+                // Back-edge: once hot, continue the remaining iterations in the compiled tier
+                if (p != null && ++p.backEdges >= tiers.threshold && tiers.enter(p, w, env, true)) return;
             }
             return;
         }
 
+        if (s instanceof ParallelFor pf) {
+            execParallel(pf);
+            return;
+        }
+
         if (s instanceof Print p) {
             boolean first = true;
             for (Expr ex : p.values) {
-                if (!first) System.out.print(" ");
-                System.out.print(stringify(eval(ex)));
+                if (!first) out.print(" ");
+                out.print(stringify(eval(ex)));
                 first = false;
             }
-            System.out.println();
+            out.println();
             return;
         }
 
         throw new RuntimeException("Unknown statement " + s.getClass());
     }
 
+    /**
+     * Runs the iterations of a parallel loop on the common fork-join pool.
+     * Every iteration executes in a fresh Environment whose parent is the loop's scope; the parser
+     * guarantees the body never writes that scope, so concurrent reads need no locking.
+     * Reduction accumulators start at the operator's identity in each iteration and the partial
+     * results are folded into the outer variables once all iterations have finished.
+     * If an iteration fails, the output of every earlier iteration (and of the failing one up to the
+     * error) is printed, the outer variables are left untouched, and the original exception is rethrown.
+     */
+    private void execParallel(ParallelFor pf){
+        int from = Operators.asInt(eval(pf.from), "parallel start");
+        int to = Operators.asInt(eval(pf.to), "parallel end");
+        for (Reduction r : pf.reductions) Operators.asInt(env.get(r.name), r.op + " reduction " + r.name);
+        if (from >= to) return;
+
+        int grain = Math.max(1, (to - from) / (ForkJoinPool.getCommonPoolParallelism() * 4));
+        Chunk all = ForkJoinPool.commonPool().invoke(new ParallelTask(pf, env, from, to, grain));
+
+        out.print(all.output.toString());
+        // Rethrown here rather than from inside the pool, which would wrap it in a re-created copy
+        if (all.error != null) throw all.error;
+        for (int k = 0; k < pf.reductions.size(); k++) {
+            Reduction r = pf.reductions.get(k);
+            env.assign(r.name, combine(r.op, Operators.asInt(env.get(r.name), r.op + " reduction " + r.name), all.acc[k]));
+        }
+    }
+
+    /**
+     * Partial result of a contiguous run of iterations: reduced accumulators plus ordered output.
+     * error is the first failure in iteration order; output then stops where that iteration failed.
+     */
+    private static final class Chunk {
+        final int[] acc;
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        RuntimeException error;
+
+        Chunk(List<Reduction> reductions){
+            acc = new int[reductions.size()];
+            for (int k = 0; k < acc.length; k++) acc[k] = identity(reductions.get(k).op);
+        }
+    }
+
+    /**
+     * Splits the iteration range in halves until it is below the grain size, then runs it sequentially.
+     * Joining left before right keeps buffered output in iteration order.
+     */
+    private static final class ParallelTask extends RecursiveTask<Chunk> {
+        private static final long serialVersionUID = 1L;
+
+        private final ParallelFor pf;
+        private final Environment scope;
+        private final int lo, hi, grain;
+
+        ParallelTask(ParallelFor pf, Environment scope, int lo, int hi, int grain){
+            this.pf = pf; this.scope = scope; this.lo = lo; this.hi = hi; this.grain = grain;
+        }
+
+        @Override
+        protected Chunk compute(){
+            if (hi - lo <= grain) return runRange();
+
+            int mid = lo + (hi - lo) / 2;
+            ParallelTask left = new ParallelTask(pf, scope, lo, mid, grain);
+            ParallelTask right = new ParallelTask(pf, scope, mid, hi, grain);
+            right.fork();
+            Chunk a = left.compute();
+            Chunk b = right.join();
+
+            // Iterations after a failure would not have run sequentially, so their output is dropped
+            if (a.error != null) return a;
+            a.error = b.error;
+            a.output.writeBytes(b.output.toByteArray());
+            for (int k = 0; k < a.acc.length; k++) {
+                a.acc[k] = combine(pf.reductions.get(k).op, a.acc[k], b.acc[k]);
+            }
+            return a;
+        }
+
+        private Chunk runRange(){
+            Chunk c = new Chunk(pf.reductions);
+            PrintStream buffer = new PrintStream(c.output);
+            for (int idx = lo; idx < hi; idx++) {
+                Environment local = new Environment(scope);
+                local.define(pf.var, idx);
+                for (Reduction r : pf.reductions) local.define(r.name, identity(r.op));
+
+                Interpreter worker = new Interpreter(local, buffer);
+                try {
+                    worker.exec(pf.body);
+                } catch (RuntimeException ex) {
+                    c.error = ex;
+                    break;
+                }
+
+                for (int k = 0; k < c.acc.length; k++) {
+                    Reduction r = pf.reductions.get(k);
+                    int partial = Operators.asInt(local.get(r.name), r.op + " reduction " + r.name);
+                    c.acc[k] = combine(r.op, c.acc[k], partial);
+                }
+            }
+            buffer.flush();
+            return c;
+        }
+    }
+
+    private static int identity(String op){
+        return switch(op){
+            case "sum" -> 0;
+            case "min" -> Integer.MAX_VALUE;
+            case "max" -> Integer.MIN_VALUE;
+            default -> throw new RuntimeException("Unknown reduction " + op);
+        };
+    }
+
+    private static int combine(String op, int a, int b){
+        return switch(op){
+            case "sum" -> a + b;
+            case "min" -> Math.min(a, b);
+            case "max" -> Math.max(a, b);
+            default -> throw new RuntimeException("Unknown reduction " + op);
+        };
+    }
+
     
     private Object eval(Expr e){
 
@@ -77,61 +227,24 @@ final class Interpreter {
 
         if (e instanceof Variable v) return env.get(v.name);
 
-        if (e instanceof Unary u) {
-            Object r = eval(u.right);
-            return switch(u.op){
-                case "!" -> !asBool(r, "logical not");
-                case "-" -> -asInt(r, "unary minus");
-                default -> throw new RuntimeException("Unknown unary " + u.op);
-            };
-        }
+        if (e instanceof Unary u) return Operators.unary(u.op, eval(u.right));
 
         if (e instanceof Binary b) {
             if (b.op.equals("&&")) {
-                boolean left = asBool(eval(b.left), "&& left");
-                return left && asBool(eval(b.right), "&& right");
+                boolean left = Operators.asBool(eval(b.left), "&& left");
+                return left && Operators.asBool(eval(b.right), "&& right");
             }
             if (b.op.equals("||")) {
-                boolean left = asBool(eval(b.left), "|| left");
-                return left || asBool(eval(b.right), "|| right");
+                boolean left = Operators.asBool(eval(b.left), "|| left");
+                return left || Operators.asBool(eval(b.right), "|| right");
             }
-
             Object L = eval(b.left);
-            Object R = eval(b.right);
-
-            return switch(b.op){
-                case "+"  -> asInt(L,"+ left")  + asInt(R,"+ right");
-                case "-"  -> asInt(L,"- left")  - asInt(R,"- right");
-                case "*"  -> asInt(L,"* left")  * asInt(R,"* right");
-                case "/"  -> asInt(L,"/ left")  / asInt(R,"/ right");
-                case "%"  -> asInt(L,"% left")  % asInt(R,"% right");
-
-                case "<"  -> asInt(L,"< left")  <  asInt(R,"< right");
-                case "<=" -> asInt(L,"<= left") <= asInt(R,"<= right");
-                case ">"  -> asInt(L,"> left")  >  asInt(R,"> right");
-                case ">=" -> asInt(L,">= left") >= asInt(R,">= right");
-
-                case "==" -> Objects.equals(L, R);
-                case "!=" -> !Objects.equals(L, R);
-
-                default   -> throw new RuntimeException("Unknown operator " + b.op);
-            };
+            return Operators.binary(b.op, L, eval(b.right));
         }
 
         throw new RuntimeException("Unknown expr " + e.getClass());
     }
 
-
-    private int asInt(Object v, String ctx){
-        if (v instanceof Integer i) return i;
-        throw new RuntimeException("Type error expected int in " + ctx + " got " + v);
-    }
-
-    private boolean asBool(Object v, String ctx){
-        if (v instanceof Boolean b) return b;
-        throw new RuntimeException("Type error expected bool in " + ctx + " got " + v);
-    }
-
     
     private String stringify(Object v){ return String.valueOf(v); }
 }
@@ -0,0 +1,318 @@
+import java.io.*;
+import java.util.*;
+
+/**
+ * LoopCompiler
+ * Second execution tier: translates a hot while loop into a tree of closures over an int[] frame.
+ * Every variable the loop touches gets a fixed slot, and types are specialized from the values
+ * found in the Environment when the loop is compiled (ints as-is, bools as 0/1).
+ * Anything the closures cannot reproduce exactly raises Bailout and the loop stays interpreted.
+ */
+final class LoopCompiler {
+
+    interface IntCode { int run(int[] s); }
+
+    interface BoolCode { boolean run(int[] s); }
+
+    interface Action { void run(int[] s); }
+
+    enum Type { INT, BOOL, STR }
+
+    /** Thrown when a construct or type combination is outside what the compiled tier supports. */
+    static final class Bailout extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        Bailout(String msg){ super(msg, null, false, false); }
+    }
+
+    /** Compiled expression: exactly one of ints, bools, or str is set according to type. */
+    private static final class Code {
+        final Type type;
+        final IntCode ints;
+        final BoolCode bools;
+        final String str;
+
+        private Code(Type t, IntCode i, BoolCode b, String s){ type = t; ints = i; bools = b; str = s; }
+
+        static Code ofInt(IntCode c){ return new Code(Type.INT, c, null, null); }
+        static Code ofBool(BoolCode c){ return new Code(Type.BOOL, null, c, null); }
+        static Code ofStr(String c){ return new Code(Type.STR, null, null, c); }
+    }
+
+    private final Environment env;
+    private final PrintStream out;
+
+    private final List<String> outerNames = new ArrayList<>();
+    private final List<Type> outerTypes = new ArrayList<>();
+    private final Set<Integer> written = new HashSet<>();
+    private final Map<String,Integer> outerSlots = new HashMap<>();
+    private final Deque<Map<String,Integer>> scopes = new ArrayDeque<>();
+    private final Map<Integer,Type> localTypes = new HashMap<>();
+    private int slots = 0;
+
+    private LoopCompiler(Environment env, PrintStream out){ this.env = env; this.out = out; }
+
+    /**
+     * Compiles w against the variables visible from env.
+     * Throws Bailout if the loop cannot be compiled.
+     */
+    static CompiledLoop compile(While w, Environment env, PrintStream out){
+        LoopCompiler c = new LoopCompiler(env, out);
+        BoolCode cond = c.bool(w.cond, "while condition");
+        Action body = c.stmt(w.body);
+
+        int n = c.outerNames.size();
+        int[] outer = new int[n];
+        for (int k = 0; k < n; k++) outer[k] = c.outerSlots.get(c.outerNames.get(k));
+        boolean[] dirty = new boolean[n];
+        for (int k = 0; k < n; k++) dirty[k] = c.written.contains(outer[k]);
+
+        return new CompiledLoop(c.outerNames.toArray(new String[0]), c.outerTypes.toArray(new Type[0]),
+                                outer, dirty, c.slots, cond, body);
+    }
+
+    private Action stmt(Stmt s){
+        if (s instanceof Block b) {
+            scopes.push(new HashMap<>());
+            List<Action> list = new ArrayList<>();
+            for (Stmt st : b.stmts) {
+                if (st instanceof VarDecl vd) list.add(vardecl(vd));
+                else list.add(stmt(st));
+            }
+            scopes.pop();
+            Action[] acts = list.toArray(new Action[0]);
+            return f -> { for (Action a : acts) a.run(f); };
+        }
+
+        // Outside a block the declaration would land in the loop's own scope and outlive the iteration
+        if (s instanceof VarDecl) throw new Bailout("declaration outside a block");
+
+        if (s instanceof Assign as) {
+            int slot = resolve(as.name);
+            Code v = expr(as.value);
+            if (v.type != typeOf(slot)) throw new Bailout(as.name + " changes type to " + v.type);
+            if (outerSlots.containsKey(as.name) && outerSlots.get(as.name) == slot) written.add(slot);
+            return store(slot, v);
+        }
+
+        if (s instanceof If iff) {
+            BoolCode c = bool(iff.cond, "if condition");
+            Action t = stmt(iff.thenB);
+            if (iff.elseB == null) return f -> { if (c.run(f)) t.run(f); };
+            Action e = stmt(iff.elseB);
+            return f -> { if (c.run(f)) t.run(f); else e.run(f); };
+        }
+
+        if (s instanceof While w) {
+            BoolCode c = bool(w.cond, "while condition");
+            Action b = stmt(w.body);
+            return f -> { while (c.run(f)) b.run(f); };
+        }
+
+        if (s instanceof Print p) {
+            List<Code> parts = new ArrayList<>();
+            for (Expr ex : p.values) parts.add(expr(ex));
+            Code[] args = parts.toArray(new Code[0]);
+            return f -> {
+                StringBuilder sb = new StringBuilder();
+                for (int k = 0; k < args.length; k++) {
+                    if (k > 0) sb.append(' ');
+                    Code a = args[k];
+                    switch (a.type) {
+                        case INT -> sb.append(a.ints.run(f));
+                        case BOOL -> sb.append(a.bools.run(f));
+                        case STR -> sb.append(a.str);
+                    }
+                }
+                out.println(sb);
+            };
+        }
+
+        throw new Bailout("unsupported statement " + s.getClass().getSimpleName());
+    }
+
+    private Action vardecl(VarDecl vd){
+        Code v = expr(vd.init);
+        if (v.type == Type.STR) throw new Bailout(vd.name + " holds a string");
+        int slot = slots++;
+        localTypes.put(slot, v.type);
+        scopes.peek().put(vd.name, slot);
+        return store(slot, v);
+    }
+
+    private Action store(int slot, Code v){
+        if (v.type == Type.INT) {
+            IntCode c = v.ints;
+            return f -> f[slot] = c.run(f);
+        }
+        BoolCode c = v.bools;
+        return f -> f[slot] = c.run(f) ? 1 : 0;
+    }
+
+    private Code expr(Expr e){
+        if (e instanceof Literal l) {
+            if (l.value instanceof Integer i) { int k = i; return Code.ofInt(f -> k); }
+            if (l.value instanceof Boolean b) { boolean k = b; return Code.ofBool(f -> k); }
+            return Code.ofStr(String.valueOf(l.value));
+        }
+
+        if (e instanceof Variable v) {
+            int slot = resolve(v.name);
+            if (typeOf(slot) == Type.INT) return Code.ofInt(f -> f[slot]);
+            return Code.ofBool(f -> f[slot] != 0);
+        }
+
+        if (e instanceof Unary u) {
+            return switch(u.op){
+                case "!" -> { BoolCode r = bool(u.right, "logical not"); yield Code.ofBool(f -> !r.run(f)); }
+                case "-" -> { IntCode r = ints(u.right, "unary minus"); yield Code.ofInt(f -> -r.run(f)); }
+                default -> throw new Bailout("unknown unary " + u.op);
+            };
+        }
+
+        if (e instanceof Binary b) {
+            if (b.op.equals("&&")) {
+                BoolCode L = bool(b.left, "&& left"), R = bool(b.right, "&& right");
+                return Code.ofBool(f -> L.run(f) && R.run(f));
+            }
+            if (b.op.equals("||")) {
+                BoolCode L = bool(b.left, "|| left"), R = bool(b.right, "|| right");
+                return Code.ofBool(f -> L.run(f) || R.run(f));
+            }
+            if (b.op.equals("==") || b.op.equals("!=")) return equality(b);
+
+            IntCode L = ints(b.left, b.op + " left"), R = ints(b.right, b.op + " right");
+            return switch(b.op){
+                case "+"  -> Code.ofInt(f -> L.run(f) + R.run(f));
+                case "-"  -> Code.ofInt(f -> L.run(f) - R.run(f));
+                case "*"  -> Code.ofInt(f -> L.run(f) * R.run(f));
+                case "/"  -> Code.ofInt(f -> L.run(f) / R.run(f));
+                case "%"  -> Code.ofInt(f -> L.run(f) % R.run(f));
+
+                case "<"  -> Code.ofBool(f -> L.run(f) <  R.run(f));
+                case "<=" -> Code.ofBool(f -> L.run(f) <= R.run(f));
+                case ">"  -> Code.ofBool(f -> L.run(f) >  R.run(f));
+                case ">=" -> Code.ofBool(f -> L.run(f) >= R.run(f));
+
+                default   -> throw new Bailout("unknown operator " + b.op);
+            };
+        }
+
+        throw new Bailout("unsupported expression " + e.getClass().getSimpleName());
+    }
+
+    private Code equality(Binary b){
+        Code L = expr(b.left), R = expr(b.right);
+        if (L.type == Type.STR || R.type == Type.STR) throw new Bailout("string comparison");
+        boolean negate = b.op.equals("!=");
+
+        if (L.type != R.type) {
+            // Values of different types are never equal, but both sides still run for their errors
+            Action l = L.type == Type.INT ? f -> L.ints.run(f) : f -> L.bools.run(f);
+            Action r = R.type == Type.INT ? f -> R.ints.run(f) : f -> R.bools.run(f);
+            return Code.ofBool(f -> { l.run(f); r.run(f); return negate; });
+        }
+        if (L.type == Type.INT) {
+            IntCode l = L.ints, r = R.ints;
+            return Code.ofBool(f -> (l.run(f) == r.run(f)) != negate);
+        }
+        BoolCode l = L.bools, r = R.bools;
+        return Code.ofBool(f -> (l.run(f) == r.run(f)) != negate);
+    }
+
+    private IntCode ints(Expr e, String ctx){
+        Code c = expr(e);
+        if (c.type != Type.INT) throw new Bailout("expected int in " + ctx + " got " + c.type);
+        return c.ints;
+    }
+
+    private BoolCode bool(Expr e, String ctx){
+        Code c = expr(e);
+        if (c.type != Type.BOOL) throw new Bailout("expected bool in " + ctx + " got " + c.type);
+        return c.bools;
+    }
+
+    /** Maps a name to its slot, allocating an outer slot typed from the current Environment value. */
+    private int resolve(String name){
+        for (Map<String,Integer> scope : scopes) {
+            Integer slot = scope.get(name);
+            if (slot != null) return slot;
+        }
+        Integer slot = outerSlots.get(name);
+        if (slot != null) return slot;
+
+        if (!env.isDefined(name)) throw new Bailout("undefined variable " + name);
+        Object v = env.get(name);
+        Type t;
+        if (v instanceof Integer) t = Type.INT;
+        else if (v instanceof Boolean) t = Type.BOOL;
+        else throw new Bailout(name + " holds " + v);
+
+        slot = slots++;
+        outerSlots.put(name, slot);
+        outerNames.add(name);
+        outerTypes.add(t);
+        return slot;
+    }
+
+    private Type typeOf(int slot){
+        Type t = localTypes.get(slot);
+        if (t != null) return t;
+        for (int k = 0; k < outerNames.size(); k++) {
+            if (outerSlots.get(outerNames.get(k)) == slot) return outerTypes.get(k);
+        }
+        throw new IllegalStateException("Unallocated slot " + slot);
+    }
+}
+
+/**
+ * Compiled form of a while loop together with the type assumptions it was specialized for.
+ */
+final class CompiledLoop {
+    final String[] names;
+    final LoopCompiler.Type[] types;
+    final int[] slots;
+    final boolean[] written;
+    final int frameSize;
+    final LoopCompiler.BoolCode cond;
+    final LoopCompiler.Action body;
+
+    CompiledLoop(String[] names, LoopCompiler.Type[] types, int[] slots, boolean[] written, int frameSize,
+                 LoopCompiler.BoolCode cond, LoopCompiler.Action body) {
+        this.names = names; this.types = types; this.slots = slots; this.written = written;
+        this.frameSize = frameSize; this.cond = cond; this.body = body;
+    }
+
+    /** Returns null if env satisfies the type assumptions this loop was compiled under, else the failed guard. */
+    String guard(Environment env){
+        for (int k = 0; k < names.length; k++) {
+            if (!env.isDefined(names[k])) return names[k] + " is undefined";
+            Object v = env.get(names[k]);
+            if (types[k] == LoopCompiler.Type.INT && !(v instanceof Integer)) return names[k] + " expected int got " + v;
+            if (types[k] == LoopCompiler.Type.BOOL && !(v instanceof Boolean)) return names[k] + " expected bool got " + v;
+        }
+        return null;
+    }
+
+    /**
+     * Loads the outer variables from env into a fresh frame, runs the loop to completion,
+     * and stores assigned variables back. Callers must check guard(env) first.
+     */
+    void run(Environment env){
+        int[] f = new int[frameSize];
+        for (int k = 0; k < names.length; k++) {
+            Object v = env.get(names[k]);
+            f[slots[k]] = v instanceof Boolean b ? (b ? 1 : 0) : (Integer) v;
+        }
+
+        try {
+            while (cond.run(f)) body.run(f);
+        } finally {
+            for (int k = 0; k < names.length; k++) {
+                if (!written[k]) continue;
+                int v = f[slots[k]];
+                env.assign(names[k], types[k] == LoopCompiler.Type.INT ? (Object) v : (Object) (v != 0));
+            }
+        }
+    }
+}
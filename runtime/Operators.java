@@ -0,0 +1,49 @@
+import java.util.*;
+
+/**
+ * Operators
+ * Semantics of MiniLang's strict unary and binary operators, shared by Interpreter and FlatInterpreter.
+ * && and || short-circuit, so each walker evaluates them itself and only uses asBool from here.
+ */
+final class Operators {
+
+    private Operators(){}
+
+    static Object unary(String op, Object r){
+        return switch(op){
+            case "!" -> !asBool(r, "logical not");
+            case "-" -> -asInt(r, "unary minus");
+            default -> throw new RuntimeException("Unknown unary " + op);
+        };
+    }
+
+    static Object binary(String op, Object L, Object R){
+        return switch(op){
+            case "+"  -> asInt(L,"+ left")  + asInt(R,"+ right");
+            case "-"  -> asInt(L,"- left")  - asInt(R,"- right");
+            case "*"  -> asInt(L,"* left")  * asInt(R,"* right");
+            case "/"  -> asInt(L,"/ left")  / asInt(R,"/ right");
+            case "%"  -> asInt(L,"% left")  % asInt(R,"% right");
+
+            case "<"  -> asInt(L,"< left")  <  asInt(R,"< right");
+            case "<=" -> asInt(L,"<= left") <= asInt(R,"<= right");
+            case ">"  -> asInt(L,"> left")  >  asInt(R,"> right");
+            case ">=" -> asInt(L,">= left") >= asInt(R,">= right");
+
+            case "==" -> Objects.equals(L, R);
+            case "!=" -> !Objects.equals(L, R);
+
+            default   -> throw new RuntimeException("Unknown operator " + op);
+        };
+    }
+
+    static int asInt(Object v, String ctx){
+        if (v instanceof Integer i) return i;
+        throw new RuntimeException("Type error expected int in " + ctx + " got " + v);
+    }
+
+    static boolean asBool(Object v, String ctx){
+        if (v instanceof Boolean b) return b;
+        throw new RuntimeException("Type error expected bool in " + ctx + " got " + v);
+    }
+}
@@ -0,0 +1,17 @@
+/**
+ * TierOptions
+ * Tuning knobs for tiered execution of hot while loops.
+ */
+final class TierOptions {
+    /** When false every loop stays in the tree-walking interpreter. */
+    boolean enabled = true;
+
+    /** Back-edges a while loop must take before it is compiled and entered via on-stack replacement. */
+    int threshold = 1000;
+
+    /** Failed type guards tolerated per loop before it is pinned to the interpreter. */
+    int maxDeopts = 3;
+
+    /** Report tier transitions on stderr. */
+    boolean log = false;
+}
@@ -0,0 +1,84 @@
+import java.io.*;
+import java.util.*;
+
+/**
+ * Tiering
+ * Per-interpreter bookkeeping for promoting hot while loops to the compiled tier.
+ * The interpreter counts back-edges on each loop's Profile; once the threshold is reached the loop is
+ * compiled against the live Environment and execution continues in compiled code from the current
+ * iteration (on-stack replacement). A failed type guard discards the compiled code and lets the loop
+ * warm up again; after maxDeopts failures, or if compilation bails out, the loop stays interpreted.
+ */
+final class Tiering {
+
+    /** Execution counters and compiled code of a single while loop. */
+    static final class Profile {
+        final int id;
+        int backEdges;
+        int deopts;
+        CompiledLoop code;
+        boolean pinned;
+
+        Profile(int id){ this.id = id; }
+    }
+
+    final int threshold;
+    private final int maxDeopts;
+    private final boolean log;
+    private final PrintStream out;
+    private final Map<While,Profile> profiles = new IdentityHashMap<>();
+
+    Tiering(TierOptions opts, PrintStream out){
+        this.threshold = opts.threshold;
+        this.maxDeopts = opts.maxDeopts;
+        this.log = opts.log;
+        this.out = out;
+    }
+
+    Profile profile(While w){
+        return profiles.computeIfAbsent(w, k -> new Profile(profiles.size() + 1));
+    }
+
+    /**
+     * Tries to run the rest of loop w in the compiled tier, compiling it first if it is hot.
+     * Returns true if the loop ran to completion there; false means the interpreter keeps going.
+     * osr tells whether the interpreter is in the middle of the loop rather than at its entry.
+     */
+    boolean enter(Profile p, While w, Environment env, boolean osr){
+        if (p.pinned) return false;
+
+        if (p.code == null) {
+            if (p.backEdges < threshold) return false;
+            try {
+                p.code = LoopCompiler.compile(w, env, out);
+            } catch (LoopCompiler.Bailout b) {
+                p.pinned = true;
+                trace(p, "not compilable (" + b.getMessage() + "), staying in interpreter");
+                return false;
+            }
+            trace(p, "compiled after " + p.backEdges + " back-edges, " + p.code.frameSize + " slots");
+        }
+
+        String failed = p.code.guard(env);
+        if (failed == null) {
+            if (osr) trace(p, "on-stack replacement after " + p.backEdges + " back-edges");
+            else trace(p, "entering compiled code at loop entry");
+            p.code.run(env);
+            return true;
+        }
+
+        p.code = null;
+        p.backEdges = 0;
+        if (++p.deopts >= maxDeopts) {
+            p.pinned = true;
+            trace(p, "deoptimized (" + failed + "), pinned to interpreter after " + p.deopts + " deopts");
+        } else {
+            trace(p, "deoptimized (" + failed + ")");
+        }
+        return false;
+    }
+
+    private void trace(Profile p, String msg){
+        if (log) System.err.println("[tier] loop#" + p.id + " " + msg);
+    }
+}
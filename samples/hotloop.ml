@@ -0,0 +1,19 @@
+{
+  var round = 0;
+  var step = 1;
+  var total = 0;
+
+  while (round < 3) {
+    // In the last round step turns into a bool, which breaks the compiled loop's type assumption
+    if (round == 2) { step = true; }
+
+    var i = 0;
+    while (i < 5000) {
+      if (step == true) { total = total + 2; } else { total = total + step; }
+      i = i + 1;
+    }
+    round = round + 1;
+  }
+
+  print(total);  // 20000
+}
@@ -0,0 +1,18 @@
+{
+  var n = 10;
+  var total = 0;
+  var smallest = 1000;
+  var largest = 0;
+
+  parallel for (i = 0, n) reduce sum(total), min(smallest), max(largest) {
+    var sq = i * i;
+    print('square of', i, '=', sq);  // printed in iteration order
+    total = total + sq;
+    if (sq < smallest) { smallest = sq; }
+    if (sq > largest) { largest = sq; }
+  }
+
+  print('Sum =', total);      // 285
+  print('Min =', smallest);   // 0
+  print('Max =', largest);    // 81
+}
@@ -0,0 +1,13 @@
+// Expected to FAIL with a parse error: the bare `var x` below only runs when
+// its condition holds, so `x = x + 1` may write the shared outer x from many
+// threads at once. The parser rejects it:
+//   Parallel loop writes shared variable x outside a reduction at 10:5
+{
+  var x = 0;
+  parallel for (i = 0, 1000) {
+    if (i < 0) var x = 0;
+    while (false) var x = 0;
+    x = x + 1;
+  }
+  print(x);
+}